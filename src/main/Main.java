@@ -1,6 +1,8 @@
 package main;
 
+import neuralnetwork.LabelEncoder;
 import neuralnetwork.NeuralNetwork;
+import neuralnetwork.Normalizer;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -17,6 +19,7 @@ import java.util.Scanner;
 public class Main {
     private static List<List<Double>> inputs;
     private static List<List<Double>> ans;
+    private static Normalizer normalizer;
 
     public static void main(String[] args) {
         List<Integer> neurons = new ArrayList<>();
@@ -27,6 +30,7 @@ public class Main {
         NeuralNetwork neuralNetwork = new NeuralNetwork(neurons);
 
         readData(".\\Data\\Iris.txt");
+        neuralNetwork.setNormalizer(normalizer);
 
         neuralNetwork.trainNetwork(inputs, ans, 0.3);
         neuralNetwork.testNetwork(inputs, ans);
@@ -35,7 +39,10 @@ public class Main {
     private static void readData(String fileAddress) {
         inputs = new ArrayList<>();
         ans = new ArrayList<>();
+        normalizer = new Normalizer(Normalizer.Type.Z_SCORE);
 
+        LabelEncoder labelEncoder = new LabelEncoder();
+        List<Integer> labels = new ArrayList<>();
 
         try {
             File file = new File(fileAddress);
@@ -46,19 +53,22 @@ public class Main {
                 String[] vals = scan.nextLine().split(" ");
 
                 List<Double> input = new ArrayList<>();
-                List<Double> answer = new ArrayList<>();
-                answer.add(0.0);
-                answer.add(0.0);
-                answer.add(0.0);
 
                 for (int i = 0; i < 4; ++i) {
                     input.add(Double.parseDouble(vals[i].trim()));
                 }
 
-                answer.set(Integer.parseInt(vals[4].trim()), 1.0);
+                int label = Integer.parseInt(vals[4].trim());
+
+                normalizer.accept(input);
+                labelEncoder.accept(label);
 
                 inputs.add(input);
-                ans.add(answer);
+                labels.add(label);
+            }
+
+            for (Integer label : labels) {
+                ans.add(labelEncoder.encode(label));
             }
 
         } catch (IOException ex) {
@@ -0,0 +1,163 @@
+package neuralnetwork;
+
+import java.util.List;
+
+/**
+ * Immutable inference-only form of a trained network. Weights are flattened into one
+ * row-major primitive array per layer, the input normalizer is folded into the first
+ * layer's weights and biases, and all shapes are checked once at compile time, so
+ * classify runs on primitive arrays without boxing or size checks.
+ * It shares no state with the source network and is safe to use from many threads.
+ */
+public final class CompiledNetwork {
+    private final int[] layerSizes;
+    private final double[][] weights;
+    private final double[][] biases;
+    private final int maxLayerSize;
+
+    private CompiledNetwork(int[] layerSizes, double[][] weights, double[][] biases) {
+        this.layerSizes = layerSizes;
+        this.weights = weights;
+        this.biases = biases;
+
+        int max = 0;
+
+        for (int layerSize : layerSizes) {
+            max = Math.max(max, layerSize);
+        }
+
+        this.maxLayerSize = max;
+    }
+
+    public static CompiledNetwork compile(NeuralNetwork network) {
+        if (network == null)
+            throw new NullPointerException("CompiledNetwork: network can't be null");
+
+        if (network.size() == 0)
+            throw new IllegalArgumentException("CompiledNetwork: network can't have zero layers");
+
+        int[] layerSizes = new int[network.size() + 1];
+        double[][] weights = new double[network.size()][];
+        double[][] biases = new double[network.size()][];
+
+        layerSizes[0] = network.getLayer(0).inputSize();
+
+        for (int k = 0; k < network.size(); ++k) {
+            Layer layer = network.getLayer(k);
+            List<List<Double>> layerWeights = layer.getWeights();
+            List<Double> layerBiases = layer.getBiases();
+
+            int inputSize = layerSizes[k];
+            layerSizes[k + 1] = layer.size();
+
+            weights[k] = new double[layer.size() * inputSize];
+            biases[k] = new double[layer.size()];
+
+            for (int j = 0; j < layer.size(); ++j) {
+                List<Double> neuronWeights = layerWeights.get(j);
+
+                if (neuronWeights.size() != inputSize)
+                    throw new IllegalArgumentException("CompiledNetwork: layer " + k + " doesn't match previous layer size");
+
+                for (int i = 0; i < inputSize; ++i) {
+                    weights[k][j * inputSize + i] = neuronWeights.get(i);
+                }
+
+                biases[k][j] = layerBiases.get(j);
+            }
+        }
+
+        Normalizer normalizer = network.getNormalizer();
+
+        if (normalizer != null) {
+            int inputSize = layerSizes[0];
+
+            for (int j = 0; j < layerSizes[1]; ++j) {
+                for (int i = 0; i < inputSize; ++i) {
+                    double weight = weights[0][j * inputSize + i] * normalizer.getScale(i);
+
+                    weights[0][j * inputSize + i] = weight;
+                    biases[0][j] -= weight * normalizer.getShift(i);
+                }
+            }
+        }
+
+        return new CompiledNetwork(layerSizes, weights, biases);
+    }
+
+    public int classify(List<Double> inputs) {
+        if (inputs == null)
+            throw new NullPointerException("CompiledNetwork: inputs can't be null");
+
+        double[] values = new double[inputs.size()];
+
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = inputs.get(i);
+        }
+
+        return classify(values);
+    }
+
+    public int classify(double[] inputs) {
+        double[] output = feedForward(inputs);
+
+        double maxOutput = Double.MIN_VALUE;
+        int classID = -1;
+
+        for (int i = 0; i < layerSizes[layerSizes.length - 1]; ++i) {
+            if (output[i] > maxOutput) {
+                maxOutput = output[i];
+                classID = i;
+            }
+        }
+
+        return classID;
+    }
+
+    /**
+     * Returns a buffer whose first outputSize() values are the network outputs.
+     */
+    public double[] feedForward(double[] inputs) {
+        if (inputs == null)
+            throw new NullPointerException("CompiledNetwork: inputs can't be null");
+
+        if (inputs.length != layerSizes[0])
+            throw new IllegalArgumentException("CompiledNetwork: inputs should have the same size with input layer");
+
+        double[] current = new double[maxLayerSize];
+        double[] next = new double[maxLayerSize];
+
+        System.arraycopy(inputs, 0, current, 0, inputs.length);
+
+        for (int k = 0; k < weights.length; ++k) {
+            final double[] layerWeights = weights[k];
+            final double[] layerBiases = biases[k];
+            final int inputSize = layerSizes[k];
+            final int outputSize = layerSizes[k + 1];
+
+            for (int j = 0, offset = 0; j < outputSize; ++j, offset += inputSize) {
+                double sum = layerBiases[j];
+
+                for (int i = 0; i < inputSize; ++i) {
+                    sum += layerWeights[offset + i] * current[i];
+                }
+
+                next[j] = 1.0 / (1.0 + Math.exp(-sum));
+            }
+
+            double[] swap = current;
+            current = next;
+            next = swap;
+        }
+
+        return current;
+    }
+
+    public int inputSize() {
+        return layerSizes[0];
+    }
+
+    public int outputSize() {
+        return layerSizes[layerSizes.length - 1];
+    }
+}
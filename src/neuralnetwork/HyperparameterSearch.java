@@ -0,0 +1,235 @@
+package neuralnetwork;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Trains candidate networks concurrently on a fixed-size thread pool. All candidates read
+ * the same in-memory dataset; only their own networks are modified. Candidates are ranked
+ * on a separate validation set, so the search doesn't reward memorising the training data.
+ */
+public class HyperparameterSearch {
+    private final List<List<Double>> inputs;
+    private final List<List<Double>> correctAnswers;
+    private final List<List<Double>> validationInputs;
+    private final List<List<Double>> validationAnswers;
+    private final int numberOfThreads;
+
+    private Normalizer normalizer;
+
+    private final static int EVALUATION_INTERVAL = 1000;
+    private final static double TERMINATION_MARGIN = 0.2;
+
+    public HyperparameterSearch(List<List<Double>> inputs, List<List<Double>> correctAnswers,
+                                List<List<Double>> validationInputs, List<List<Double>> validationAnswers,
+                                int numberOfThreads) {
+        if (inputs == null || validationInputs == null)
+            throw new NullPointerException("HyperparameterSearch: inputs can't be null");
+
+        if (correctAnswers == null || validationAnswers == null)
+            throw new NullPointerException("HyperparameterSearch: correctAnswers can't be null");
+
+        if (inputs.size() != correctAnswers.size() || validationInputs.size() != validationAnswers.size())
+            throw new IllegalArgumentException("HyperparameterSearch: inputs and correctAnswers should be of the same size");
+
+        if (numberOfThreads <= 0)
+            throw new IllegalArgumentException("HyperparameterSearch: should have 1 or more threads");
+
+        this.inputs = Collections.unmodifiableList(inputs);
+        this.correctAnswers = Collections.unmodifiableList(correctAnswers);
+        this.validationInputs = Collections.unmodifiableList(validationInputs);
+        this.validationAnswers = Collections.unmodifiableList(validationAnswers);
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public void setNormalizer(Normalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    public static List<SearchCandidate> gridCandidates(List<List<Integer>> layerSizes, List<Double> alphas) {
+        List<SearchCandidate> candidates = new ArrayList<>();
+
+        for (List<Integer> neuronsInLayers : layerSizes) {
+            for (Double alpha : alphas) {
+                candidates.add(new SearchCandidate(neuronsInLayers, alpha));
+            }
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Picks layer sizes uniformly from the given options and alpha log-uniformly from [alphaMin, alphaMax].
+     */
+    public static List<SearchCandidate> randomCandidates(List<List<Integer>> layerSizes, double alphaMin,
+                                                         double alphaMax, int numberOfCandidates, Random random) {
+        if (alphaMin <= 0 || alphaMax < alphaMin)
+            throw new IllegalArgumentException("HyperparameterSearch: wrong alpha range");
+
+        List<SearchCandidate> candidates = new ArrayList<>(numberOfCandidates);
+
+        for (int i = 0; i < numberOfCandidates; ++i) {
+            List<Integer> neuronsInLayers = layerSizes.get(random.nextInt(layerSizes.size()));
+            double logAlpha = Math.log(alphaMin) + (Math.log(alphaMax) - Math.log(alphaMin)) * random.nextDouble();
+
+            candidates.add(new SearchCandidate(neuronsInLayers, Math.exp(logAlpha)));
+        }
+
+        return candidates;
+    }
+
+    public List<SearchCandidate> gridSearch(List<List<Integer>> layerSizes, List<Double> alphas,
+                                            int numberOfEpochs) throws InterruptedException {
+        return search(gridCandidates(layerSizes, alphas), numberOfEpochs);
+    }
+
+    public List<SearchCandidate> randomSearch(List<List<Integer>> layerSizes, double alphaMin, double alphaMax,
+                                              int numberOfCandidates, int numberOfEpochs) throws InterruptedException {
+        return search(randomCandidates(layerSizes, alphaMin, alphaMax, numberOfCandidates, new Random()), numberOfEpochs);
+    }
+
+    /**
+     * Trains every candidate for up to numberOfEpochs in rounds of EVALUATION_INTERVAL epochs. Each round
+     * waits for all remaining candidates, so they are compared after the same amount of training regardless
+     * of pool size; a candidate whose accuracy falls TERMINATION_MARGIN below the round's best is stopped.
+     */
+    public List<SearchCandidate> search(List<SearchCandidate> candidates, int numberOfEpochs)
+            throws InterruptedException {
+        prepare(candidates);
+
+        List<SearchCandidate> remaining = new ArrayList<>(candidates);
+
+        while (!remaining.isEmpty()) {
+            trainRound(remaining, EVALUATION_INTERVAL, numberOfEpochs);
+
+            double bestAccuracy = 0;
+
+            for (SearchCandidate candidate : remaining) {
+                bestAccuracy = Math.max(bestAccuracy, candidate.getAccuracy());
+            }
+
+            List<SearchCandidate> next = new ArrayList<>(remaining.size());
+
+            for (SearchCandidate candidate : remaining) {
+                if (candidate.getAccuracy() + TERMINATION_MARGIN < bestAccuracy) {
+                    candidate.terminate();
+                } else if (candidate.getEpochsTrained() < numberOfEpochs) {
+                    next.add(candidate);
+                }
+            }
+
+            remaining = next;
+        }
+
+        return sortByAccuracy(candidates);
+    }
+
+    /**
+     * Trains all candidates for initialEpochs, keeps the better half, doubles the budget and repeats
+     * until a single candidate is left. Training continues from the weights of the previous round.
+     */
+    public List<SearchCandidate> successiveHalving(List<SearchCandidate> candidates, int initialEpochs)
+            throws InterruptedException {
+        prepare(candidates);
+
+        List<SearchCandidate> remaining = new ArrayList<>(candidates);
+        int epochs = initialEpochs;
+
+        while (!remaining.isEmpty()) {
+            trainRound(remaining, epochs, Integer.MAX_VALUE);
+
+            if (remaining.size() == 1)
+                break;
+
+            remaining = sortByAccuracy(remaining);
+
+            List<SearchCandidate> dropped = remaining.subList((remaining.size() + 1) / 2, remaining.size());
+
+            for (SearchCandidate candidate : dropped) {
+                candidate.terminate();
+            }
+
+            remaining = new ArrayList<>(remaining.subList(0, (remaining.size() + 1) / 2));
+            epochs *= 2;
+        }
+
+        return sortByAccuracy(candidates);
+    }
+
+    public static String resultsTable(List<SearchCandidate> candidates) {
+        StringBuilder text = new StringBuilder();
+
+        text.append(String.format("%-20s %8s %8s %9s%n", "layers", "alpha", "epochs", "accuracy"));
+
+        for (SearchCandidate candidate : candidates) {
+            text.append(candidate).append("\n");
+        }
+
+        return text.toString();
+    }
+
+    private void prepare(List<SearchCandidate> candidates) {
+        if (candidates == null)
+            throw new NullPointerException("HyperparameterSearch: candidates can't be null");
+
+        for (SearchCandidate candidate : candidates) {
+            candidate.getNetwork().setNormalizer(normalizer == null ? null : normalizer.copy());
+        }
+    }
+
+    // trains each candidate for roundEpochs, or up to maxEpochs in total, and evaluates it
+    private void trainRound(List<SearchCandidate> candidates, final int roundEpochs, final int maxEpochs)
+            throws InterruptedException {
+        List<Callable<Void>> tasks = new ArrayList<>(candidates.size());
+
+        for (final SearchCandidate candidate : candidates) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    int epochs = Math.min(roundEpochs, maxEpochs - candidate.getEpochsTrained());
+
+                    candidate.train(inputs, correctAnswers, Math.max(0, epochs));
+                    candidate.evaluate(validationInputs, validationAnswers);
+                    return null;
+                }
+            });
+        }
+
+        runAll(tasks);
+    }
+
+    private void runAll(List<Callable<Void>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(numberOfThreads, Math.max(1, tasks.size())));
+
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("HyperparameterSearch: candidate training failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<SearchCandidate> sortByAccuracy(List<SearchCandidate> candidates) {
+        List<SearchCandidate> sorted = new ArrayList<>(candidates);
+
+        Collections.sort(sorted, new Comparator<SearchCandidate>() {
+            @Override
+            public int compare(SearchCandidate first, SearchCandidate second) {
+                return Double.compare(second.getAccuracy(), first.getAccuracy());
+            }
+        });
+
+        return sorted;
+    }
+}
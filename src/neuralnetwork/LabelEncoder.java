@@ -0,0 +1,47 @@
+package neuralnetwork;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One-hot encoding of class labels. The number of classes is either given up-front
+ * or learned from the labels passed to accept.
+ */
+public class LabelEncoder {
+    private int numberOfClasses;
+
+    public LabelEncoder() {
+        this.numberOfClasses = 0;
+    }
+
+    public LabelEncoder(int numberOfClasses) {
+        if (numberOfClasses <= 0)
+            throw new IllegalArgumentException("LabelEncoder: should have 1 or more classes");
+
+        this.numberOfClasses = numberOfClasses;
+    }
+
+    public void accept(int label) {
+        if (label < 0)
+            throw new IllegalArgumentException("LabelEncoder: label can't be negative");
+
+        numberOfClasses = Math.max(numberOfClasses, label + 1);
+    }
+
+    public List<Double> encode(int label) {
+        if (label < 0 || label >= numberOfClasses)
+            throw new IllegalArgumentException("LabelEncoder: label is out of range");
+
+        List<Double> encoded = new ArrayList<>(numberOfClasses);
+
+        for (int i = 0; i < numberOfClasses; ++i) {
+            encoded.add(i == label ? 1.0 : 0.0);
+        }
+
+        return encoded;
+    }
+
+    public int size() {
+        return this.numberOfClasses;
+    }
+}
@@ -2,6 +2,8 @@ package neuralnetwork;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Created by Artem on 11.05.2016.
@@ -13,6 +15,13 @@ public class Layer {
     private List<Double> sigmas;
 
     private boolean isOutputLayer;
+    private boolean isParallel;
+
+    // layers with fewer weights than this are always computed sequentially
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    // approximate number of weights handled by one fork-join task; a work-granularity
+    // heuristic, since boxed weights are not laid out contiguously in memory
+    private static final int TILE_WEIGHTS = 1 << 14;
 
     public Layer(int neuronsNumber, int connectionsPerNeuron) {
         if (neuronsNumber <= 0)
@@ -28,6 +37,7 @@ public class Layer {
         }
 
         isOutputLayer = false;
+        isParallel = false;
     }
 
     public Layer(List<Neuron> neurons) {
@@ -40,20 +50,29 @@ public class Layer {
         this.sigmas = new ArrayList<>();
 
         isOutputLayer = false;
+        isParallel = false;
     }
 
     public List<Double> feedForward(List<Double> inputs) {
         if (inputs == null)
             throw new NullPointerException("Layer: inputs can't be null");
 
-        output.clear();
+        return feedForward(inputs, null, inputs.size());
+    }
 
-        for (Neuron neuron : neurons) {
-            double neuronOutput = neuron.feedForward(inputs);
-            output.add(neuronOutput);
-        }
+    public List<Double> feedForward(SparseVector inputs) {
+        if (inputs == null)
+            throw new NullPointerException("Layer: inputs can't be null");
 
-        return output;
+        return feedForward(null, inputs, inputs.nonZeros());
+    }
+
+    public void setParallel(boolean isParallel) {
+        this.isParallel = isParallel;
+    }
+
+    public boolean isParallel() {
+        return this.isParallel;
     }
 
     public void setAsOutputLayer() {
@@ -185,6 +204,20 @@ public class Layer {
         return neurons.get(neuronIndex).getBias();
     }
 
+    public Layer copy() {
+        List<Neuron> neuronsCopy = new ArrayList<>(neurons.size());
+
+        for (Neuron neuron : neurons) {
+            neuronsCopy.add(neuron.copy());
+        }
+
+        Layer layer = new Layer(neuronsCopy);
+        layer.isOutputLayer = this.isOutputLayer;
+        layer.isParallel = this.isParallel;
+
+        return layer;
+    }
+
     public static Layer parseLayer(String s) {
         String[] sNeurons = s.split("\n");
 
@@ -216,6 +249,32 @@ public class Layer {
         return text.toString();
     }
 
+    // exactly one of inputs and sparseInputs is set; inputsPerNeuron is the work each neuron does
+    private List<Double> feedForward(List<Double> inputs, SparseVector sparseInputs, int inputsPerNeuron) {
+        output.clear();
+
+        if (isParallel && (long) neurons.size() * inputsPerNeuron >= PARALLEL_THRESHOLD) {
+            double[] neuronOutputs = new double[neurons.size()];
+            int tileSize = Math.max(1, TILE_WEIGHTS / Math.max(1, inputsPerNeuron));
+
+            ForkJoinPool.commonPool().invoke(
+                    new FeedForwardTask(inputs, sparseInputs, neuronOutputs, 0, neurons.size(), tileSize));
+
+            for (double neuronOutput : neuronOutputs) {
+                output.add(neuronOutput);
+            }
+
+            return output;
+        }
+
+        for (Neuron neuron : neurons) {
+            double neuronOutput = sparseInputs == null ? neuron.feedForward(inputs) : neuron.feedForward(sparseInputs);
+            output.add(neuronOutput);
+        }
+
+        return output;
+    }
+
     private List<List<Double>> getNeuronsOutgoingWeights(List<List<Double>> nextLayerWeights) {
         List<List<Double>> neuronsOutgoingWeights = new ArrayList<>();
 
@@ -231,4 +290,41 @@ public class Layer {
 
         return neuronsOutgoingWeights;
     }
+
+    @SuppressWarnings("serial")
+    private class FeedForwardTask extends RecursiveAction {
+        private final List<Double> inputs;
+        private final SparseVector sparseInputs;
+        private final double[] neuronOutputs;
+        private final int from;
+        private final int to;
+        private final int tileSize;
+
+        FeedForwardTask(List<Double> inputs, SparseVector sparseInputs, double[] neuronOutputs,
+                        int from, int to, int tileSize) {
+            this.inputs = inputs;
+            this.sparseInputs = sparseInputs;
+            this.neuronOutputs = neuronOutputs;
+            this.from = from;
+            this.to = to;
+            this.tileSize = tileSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= tileSize) {
+                for (int i = from; i < to; ++i) {
+                    Neuron neuron = neurons.get(i);
+                    neuronOutputs[i] = sparseInputs == null ? neuron.feedForward(inputs) : neuron.feedForward(sparseInputs);
+                }
+
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+
+            invokeAll(new FeedForwardTask(inputs, sparseInputs, neuronOutputs, from, middle, tileSize),
+                    new FeedForwardTask(inputs, sparseInputs, neuronOutputs, middle, to, tileSize));
+        }
+    }
 }
@@ -11,6 +11,8 @@ import java.util.*;
 public class NeuralNetwork {
     private List<Layer> layers;
     private List<Double> output;
+    private Normalizer normalizer;
+    private boolean isParallel;
 
     private final static int NUMBER_OF_EPOCHS = 10000;
     private final static double ERROR_TOLERANCE = 0.01;
@@ -18,6 +20,7 @@ public class NeuralNetwork {
     public NeuralNetwork() {
         layers = new ArrayList<>();
         output = new ArrayList<>();
+        isParallel = false;
     }
 
     public NeuralNetwork(List<Integer> neuronsInLayers) {
@@ -27,6 +30,7 @@ public class NeuralNetwork {
 
         layers = new ArrayList<>();
         output = new ArrayList<>();
+        isParallel = false;
 
         for (int i = 1; i < neuronsInLayers.size(); ++i) {
             layers.add(new Layer(neuronsInLayers.get(i), neuronsInLayers.get(i - 1)));
@@ -40,6 +44,10 @@ public class NeuralNetwork {
             throw new NullPointerException("NeuralNetwork: inputs can't be null");
         }
 
+        if (normalizer != null) {
+            inputs = normalizer.normalize(inputs);
+        }
+
         for (Layer layer : layers) {
             inputs = layer.feedForward(inputs);
         }
@@ -48,41 +56,65 @@ public class NeuralNetwork {
         return getClassID();
     }
 
-    public void trainNetwork(List<List<Double>> inputs, List<List<Double>> correctAnswers, double alpha) {
+    /**
+     * The first layer only reads and updates the weights of the non-zero inputs.
+     * Sparse inputs are used as given, so the network can't have a normalizer.
+     */
+    public int classify(SparseVector inputs) {
         if (inputs == null) {
             throw new NullPointerException("NeuralNetwork: inputs can't be null");
         }
 
-        if (correctAnswers == null) {
-            throw new NullPointerException("NeuralNetwork: correctAnswers can't be null");
+        if (normalizer != null) {
+            throw new IllegalStateException("NeuralNetwork: sparse inputs can't be normalized");
         }
 
-        if (inputs.size() != correctAnswers.size()) {
-            throw new IllegalArgumentException("NeuralNetwork: inputs and correctAnswers should be of the same size");
+        if (layers.isEmpty()) {
+            throw new IllegalStateException("NeuralNetwork: network can't have zero layers");
         }
 
-        Random random = new Random();
+        List<Double> layerOutput = layers.get(0).feedForward(inputs);
 
-        for (int i = 0; i < NUMBER_OF_EPOCHS; ++i) {
-            int inputIndex = random.nextInt(inputs.size());
+        for (int i = 1; i < layers.size(); ++i) {
+            layerOutput = layers.get(i).feedForward(layerOutput);
+        }
 
-            classify(inputs.get(inputIndex));
+        output = new ArrayList<>(layerOutput);
+        return getClassID();
+    }
 
-            List<Double> networkOutput = getOutputs();
-            List<Double> correctAnswer = correctAnswers.get(inputIndex);
+    public void trainNetwork(List<List<Double>> inputs, List<List<Double>> correctAnswers, double alpha) {
+        trainEpochs(inputs, correctAnswers, alpha, NUMBER_OF_EPOCHS, true);
+    }
 
-            if (i % 1000 == 0) {
-                System.out.println("\nEpoch " + i + ":\n" + toString());
-                System.out.println(inputs.get(inputIndex) + " => " + networkOutput + ". Correct answer: " + correctAnswer);
-            }
+    public void train(List<Double> input, List<Double> correctAnswer, double alpha) {
+        if (input == null) {
+            throw new NullPointerException("NeuralNetwork: input can't be null");
+        }
 
-            double error = getError(networkOutput, correctAnswer);
+        if (correctAnswer == null) {
+            throw new NullPointerException("NeuralNetwork: correctAnswer can't be null");
+        }
 
-            /*if (error < ERROR_TOLERANCE)
-                break;*/
+        classify(input);
+        backPropagate(getOutputs(), correctAnswer, alpha);
+    }
 
-            backPropagate(networkOutput, correctAnswer, alpha);
+    public void train(List<List<Double>> inputs, List<List<Double>> correctAnswers, double alpha, int numberOfEpochs) {
+        trainEpochs(inputs, correctAnswers, alpha, numberOfEpochs, false);
+    }
+
+    public void train(SparseVector input, List<Double> correctAnswer, double alpha) {
+        if (input == null) {
+            throw new NullPointerException("NeuralNetwork: input can't be null");
+        }
+
+        if (correctAnswer == null) {
+            throw new NullPointerException("NeuralNetwork: correctAnswer can't be null");
         }
+
+        classify(input);
+        backPropagate(getOutputs(), correctAnswer, alpha);
     }
 
     public void testNetwork(List<List<Double>> inputs, List<List<Double>> correctAnswers) {
@@ -105,12 +137,7 @@ public class NeuralNetwork {
 
         for (int i = 0; i < inputs.size(); ++i) {
             int classID = classify(inputs.get(i));
-            int correctClass = 0;
-
-            for (int j = 0; j < correctAnswers.get(i).size(); ++j) {
-                if (correctAnswers.get(i).get(j) == 1.0)
-                    correctClass = j;
-            }
+            int correctClass = getCorrectClass(correctAnswers.get(i));
 
             System.out.println(inputs.get(i) + " => " + classID + ". Correct answer: " + correctClass);
 
@@ -125,6 +152,29 @@ public class NeuralNetwork {
         System.out.println("\nAccuracy: " + accuracy);
     }
 
+    public double getAccuracy(List<List<Double>> inputs, List<List<Double>> correctAnswers) {
+        if (inputs == null) {
+            throw new NullPointerException("NeuralNetwork: inputs can't be null");
+        }
+
+        if (correctAnswers == null) {
+            throw new NullPointerException("NeuralNetwork: correctAnswers can't be null");
+        }
+
+        if (inputs.size() != correctAnswers.size()) {
+            throw new IllegalArgumentException("NeuralNetwork: inputs and correctAnswers should be of the same size");
+        }
+
+        int correctAnswersCounter = 0;
+
+        for (int i = 0; i < inputs.size(); ++i) {
+            if (classify(inputs.get(i)) == getCorrectClass(correctAnswers.get(i)))
+                ++correctAnswersCounter;
+        }
+
+        return inputs.isEmpty() ? 0 : 1.0 * correctAnswersCounter / inputs.size();
+    }
+
     public int getClassID() {
         double maxOutput = Double.MIN_VALUE;
         int classID = -1;
@@ -143,6 +193,14 @@ public class NeuralNetwork {
         return this.output;
     }
 
+    Layer getLayer(int layerIndex) {
+        if (layerIndex < 0 || layerIndex >= layers.size()) {
+            throw new IllegalArgumentException("NeuralNetwork: layerIndex is out of range");
+        }
+
+        return layers.get(layerIndex);
+    }
+
     public List<List<Double>> getLayerWeights(int layerIndex) {
         if (layerIndex < 0 || layerIndex >= layers.size()) {
             throw new IllegalArgumentException("NeuralNetwork: layerIndex is out of range");
@@ -183,6 +241,7 @@ public class NeuralNetwork {
         }
 
         layer.setAsOutputLayer();
+        layer.setParallel(isParallel);
 
         layers.add(layer);
     }
@@ -193,6 +252,7 @@ public class NeuralNetwork {
 
         Layer newLayer = new Layer(numberOfNeurons, previousLayer.size());
         newLayer.setAsOutputLayer();
+        newLayer.setParallel(isParallel);
 
         layers.add(newLayer);
     }
@@ -229,6 +289,53 @@ public class NeuralNetwork {
         return this.layers.size();
     }
 
+    /**
+     * Lets wide layers split their neurons across the common fork-join pool. Small layers stay sequential.
+     * The setting also applies to layers added later.
+     */
+    public void setParallel(boolean isParallel) {
+        this.isParallel = isParallel;
+
+        for (Layer layer : layers) {
+            layer.setParallel(isParallel);
+        }
+    }
+
+    public Normalizer getNormalizer() {
+        return this.normalizer;
+    }
+
+    /**
+     * classify builds a normalized copy of each input before the first layer, so the weights are trained
+     * in normalized space. The normalizer is only fused into the first layer's weights by compiling the network.
+     */
+    public void setNormalizer(Normalizer normalizer) {
+        if (normalizer != null && normalizer.size() == 0)
+            throw new IllegalArgumentException("NeuralNetwork: normalizer should be fitted before use");
+
+        if (normalizer != null && !layers.isEmpty() && normalizer.size() != layers.get(0).inputSize())
+            throw new IllegalArgumentException("NeuralNetwork: normalizer size should be equal to input size");
+
+        this.normalizer = normalizer;
+    }
+
+    public NeuralNetwork copy() {
+        NeuralNetwork neuralNetwork = new NeuralNetwork();
+
+        for (Layer layer : layers) {
+            neuralNetwork.layers.add(layer.copy());
+        }
+
+        neuralNetwork.normalizer = normalizer == null ? null : normalizer.copy();
+        neuralNetwork.isParallel = this.isParallel;
+
+        return neuralNetwork;
+    }
+
+    public CompiledNetwork compile() {
+        return CompiledNetwork.compile(this);
+    }
+
     public static NeuralNetwork loadNetwork(String fileAddress) throws IOException {
         byte[] encoded = Files.readAllBytes(Paths.get(fileAddress));
         String text =  new String(encoded, "utf-8");
@@ -237,12 +344,18 @@ public class NeuralNetwork {
 
         String[] sLayers = text.split("#");
 
+        Normalizer normalizer = null;
+
         for (String sLayer : sLayers) {
-            if (!sLayer.trim().isEmpty()) {
+            if (sLayer.trim().startsWith(Normalizer.HEADER)) {
+                normalizer = Normalizer.parseNormalizer(sLayer.trim());
+            } else if (!sLayer.trim().isEmpty()) {
                 neuralNetwork.addLayer(Layer.parseLayer(sLayer.trim()));
             }
         }
 
+        neuralNetwork.setNormalizer(normalizer);
+
         return neuralNetwork;
     }
 
@@ -250,6 +363,11 @@ public class NeuralNetwork {
         Writer writer = new BufferedWriter(new OutputStreamWriter(
                 new FileOutputStream(fileAddress), "utf-8"));
 
+        if (normalizer != null) {
+            writer.write(normalizer.toString());
+            writer.write("\n#\n");
+        }
+
         for (Layer layer : layers) {
             writer.write(layer.toString());
             writer.write("\n#\n");
@@ -286,6 +404,56 @@ public class NeuralNetwork {
         }
     }
 
+    // one epoch is a single randomly chosen sample
+    private void trainEpochs(List<List<Double>> inputs, List<List<Double>> correctAnswers, double alpha,
+                             int numberOfEpochs, boolean isVerbose) {
+        if (inputs == null) {
+            throw new NullPointerException("NeuralNetwork: inputs can't be null");
+        }
+
+        if (correctAnswers == null) {
+            throw new NullPointerException("NeuralNetwork: correctAnswers can't be null");
+        }
+
+        if (inputs.size() != correctAnswers.size()) {
+            throw new IllegalArgumentException("NeuralNetwork: inputs and correctAnswers should be of the same size");
+        }
+
+        Random random = new Random();
+
+        for (int i = 0; i < numberOfEpochs; ++i) {
+            int inputIndex = random.nextInt(inputs.size());
+
+            classify(inputs.get(inputIndex));
+
+            List<Double> networkOutput = getOutputs();
+            List<Double> correctAnswer = correctAnswers.get(inputIndex);
+
+            if (isVerbose && i % 1000 == 0) {
+                System.out.println("\nEpoch " + i + ":\n" + toString());
+                System.out.println(inputs.get(inputIndex) + " => " + networkOutput + ". Correct answer: " + correctAnswer);
+            }
+
+            double error = getError(networkOutput, correctAnswer);
+
+            /*if (error < ERROR_TOLERANCE)
+                break;*/
+
+            backPropagate(networkOutput, correctAnswer, alpha);
+        }
+    }
+
+    private int getCorrectClass(List<Double> correctAnswer) {
+        int correctClass = 0;
+
+        for (int j = 0; j < correctAnswer.size(); ++j) {
+            if (correctAnswer.get(j) == 1.0)
+                correctClass = j;
+        }
+
+        return correctClass;
+    }
+
     private double getError(List<Double> networkAnswer, List<Double> correctAnswer) {
         if (correctAnswer.size() != networkAnswer.size())
             throw new IllegalArgumentException("NeuralNetwork: networkAnswer and correctAnswer should be of the same size");
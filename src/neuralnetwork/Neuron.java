@@ -13,6 +13,7 @@ public class Neuron {
     private Double bias;
     private double output;
     private List<Double> input;
+    private SparseVector sparseInput;
 
     private double sigma;
     private List<Double> deltas;
@@ -65,6 +66,7 @@ public class Neuron {
             throw new NullPointerException("Neuron: inputs can't be null");
 
         this.input = inputs;
+        this.sparseInput = null;
 
         if (inputs.size() != weights.size())
             throw new IllegalArgumentException("Neuron: inputs and weights should be of the same size");
@@ -73,6 +75,25 @@ public class Neuron {
         return sigmoid(sum);
     }
 
+    public double feedForward(SparseVector inputs) {
+        if (inputs == null)
+            throw new NullPointerException("Neuron: inputs can't be null");
+
+        if (inputs.size() != weights.size())
+            throw new IllegalArgumentException("Neuron: inputs and weights should be of the same size");
+
+        this.sparseInput = inputs;
+        this.input = null;
+
+        double sum = bias;
+
+        for (int k = 0; k < inputs.nonZeros(); ++k) {
+            sum += inputs.getValue(k) * weights.get(inputs.getIndex(k));
+        }
+
+        return sigmoid(sum);
+    }
+
     public void backPropagate(List<Double> outgoingWeights, List<Double> nextLayerSigmas, double alpha) {
         if (outgoingWeights == null)
             throw new NullPointerException("Neuron: outgoingWeights can't be null");
@@ -92,12 +113,7 @@ public class Neuron {
 
         this.sigma = totalError * derivative();
 
-        deltas = new ArrayList<>();
-
-        for (Double anInput : input) {
-            double delta = alpha * this.sigma * anInput;
-            deltas.add(delta);
-        }
+        computeDeltas(alpha);
 
         bias = alpha * this.sigma;
     }
@@ -107,17 +123,21 @@ public class Neuron {
 
         this.sigma = error * derivative();
 
-        deltas = new ArrayList<>();
-
-        for (Double anInput : input) {
-            double delta = alpha * this.sigma * anInput;
-            deltas.add(delta);
-        }
+        computeDeltas(alpha);
 
         bias = alpha * this.sigma;
     }
 
     public void updateWeights() {
+        if (sparseInput != null) {
+            for (int k = 0; k < sparseInput.nonZeros(); ++k) {
+                int index = sparseInput.getIndex(k);
+                weights.set(index, weights.get(index) + deltas.get(k));
+            }
+
+            return;
+        }
+
         for (int i = 0; i < weights.size(); ++i) {
             double oldWeight = weights.get(i);
             double newWeight = oldWeight + deltas.get(i);
@@ -142,6 +162,10 @@ public class Neuron {
         return this.bias;
     }
 
+    public Neuron copy() {
+        return new Neuron(new ArrayList<>(weights), bias);
+    }
+
     public static Neuron parseNeuron(String s) {
         String[] sWeights = s.split(" ");
 
@@ -186,6 +210,26 @@ public class Neuron {
         return sum;
     }
 
+    // for sparse input only the weights of non-zero inputs get a delta
+    private void computeDeltas(double alpha) {
+        if (sparseInput != null) {
+            deltas = new ArrayList<>(sparseInput.nonZeros());
+
+            for (int k = 0; k < sparseInput.nonZeros(); ++k) {
+                deltas.add(alpha * this.sigma * sparseInput.getValue(k));
+            }
+
+            return;
+        }
+
+        deltas = new ArrayList<>(input.size());
+
+        for (Double anInput : input) {
+            double delta = alpha * this.sigma * anInput;
+            deltas.add(delta);
+        }
+    }
+
     private double sigmoid(double sum) {
         this.output =  1.0 / (1.0 + Math.exp(-sum));
         return output;
@@ -0,0 +1,203 @@
+package neuralnetwork;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-feature input scaling. Statistics are gathered in a single pass over the data
+ * (Welford's algorithm for z-score). NeuralNetwork normalizes each input in a separate pass
+ * before its first layer; the scaling is only fused into the first layer's weights when the
+ * network is compiled.
+ */
+public class Normalizer {
+    public enum Type { MIN_MAX, Z_SCORE }
+
+    public static final String HEADER = "normalizer";
+
+    private final Type type;
+    private long count;
+
+    // min and max for MIN_MAX, mean and sum of squared deviations for Z_SCORE
+    private double[] firstStats;
+    private double[] secondStats;
+
+    private double[] shifts;
+    private double[] scales;
+
+    public Normalizer(Type type) {
+        if (type == null)
+            throw new NullPointerException("Normalizer: type can't be null");
+
+        this.type = type;
+        this.count = 0;
+
+        allocate(0);
+    }
+
+    public Normalizer copy() {
+        Normalizer normalizer = new Normalizer(type);
+
+        normalizer.count = this.count;
+        normalizer.firstStats = firstStats.clone();
+        normalizer.secondStats = secondStats.clone();
+        normalizer.shifts = shifts.clone();
+        normalizer.scales = scales.clone();
+
+        return normalizer;
+    }
+
+    public void accept(List<Double> input) {
+        if (input == null)
+            throw new NullPointerException("Normalizer: input can't be null");
+
+        if (count == 0) {
+            allocate(input.size());
+        } else if (input.size() != size()) {
+            throw new IllegalArgumentException("Normalizer: all inputs should be of the same size");
+        }
+
+        ++count;
+
+        for (int i = 0; i < input.size(); ++i) {
+            double value = input.get(i);
+
+            if (type == Type.MIN_MAX) {
+                firstStats[i] = count == 1 ? value : Math.min(firstStats[i], value);
+                secondStats[i] = count == 1 ? value : Math.max(secondStats[i], value);
+            } else {
+                double mean = firstStats[i];
+                double newMean = mean + (value - mean) / count;
+
+                firstStats[i] = newMean;
+                secondStats[i] += (value - mean) * (value - newMean);
+            }
+
+            updateScaling(i);
+        }
+    }
+
+    public void fit(List<List<Double>> inputs) {
+        if (inputs == null)
+            throw new NullPointerException("Normalizer: inputs can't be null");
+
+        for (List<Double> input : inputs) {
+            accept(input);
+        }
+    }
+
+    public double normalize(int index, double value) {
+        return (value - shifts[index]) * scales[index];
+    }
+
+    public List<Double> normalize(List<Double> input) {
+        if (input == null)
+            throw new NullPointerException("Normalizer: input can't be null");
+
+        if (input.size() != size())
+            throw new IllegalArgumentException("Normalizer: input should have the same size with normalizer");
+
+        List<Double> normalized = new ArrayList<>(input.size());
+
+        for (int i = 0; i < input.size(); ++i) {
+            normalized.add(normalize(i, input.get(i)));
+        }
+
+        return normalized;
+    }
+
+    public double getShift(int index) {
+        return shifts[index];
+    }
+
+    public double getScale(int index) {
+        return scales[index];
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public int size() {
+        return shifts.length;
+    }
+
+    public static Normalizer parseNormalizer(String s) {
+        String[] lines = s.split("\n");
+
+        if (lines.length != 3) {
+            throw new IllegalArgumentException("Normalizer: expected a header and two lines of statistics");
+        }
+
+        String[] header = lines[0].trim().split(" ");
+
+        if (header.length != 3 || !header[0].equals(HEADER)) {
+            throw new IllegalArgumentException("Normalizer: wrong header");
+        }
+
+        Normalizer normalizer = new Normalizer(Type.valueOf(header[1]));
+        normalizer.count = Long.parseLong(header[2]);
+
+        String[] sFirstStats = lines[1].trim().split(" ");
+        String[] sSecondStats = lines[2].trim().split(" ");
+
+        if (sFirstStats.length != sSecondStats.length) {
+            throw new IllegalArgumentException("Normalizer: statistics should be of the same size");
+        }
+
+        normalizer.allocate(sFirstStats.length);
+
+        for (int i = 0; i < sFirstStats.length; ++i) {
+            normalizer.firstStats[i] = Double.parseDouble(sFirstStats[i]);
+            normalizer.secondStats[i] = Double.parseDouble(sSecondStats[i]);
+
+            normalizer.updateScaling(i);
+        }
+
+        return normalizer;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+
+        text.append(HEADER + " " + type + " " + count + "\n");
+
+        for (int i = 0; i < firstStats.length; ++i) {
+            text.append(firstStats[i]);
+
+            if (i < firstStats.length - 1)
+                text.append(" ");
+        }
+
+        text.append("\n");
+
+        for (int i = 0; i < secondStats.length; ++i) {
+            text.append(secondStats[i]);
+
+            if (i < secondStats.length - 1)
+                text.append(" ");
+        }
+
+        return text.toString();
+    }
+
+    private void allocate(int size) {
+        firstStats = new double[size];
+        secondStats = new double[size];
+        shifts = new double[size];
+        scales = new double[size];
+    }
+
+    private void updateScaling(int index) {
+        double spread;
+
+        if (type == Type.MIN_MAX) {
+            spread = secondStats[index] - firstStats[index];
+        } else {
+            spread = count > 0 ? Math.sqrt(secondStats[index] / count) : 0;
+        }
+
+        shifts[index] = firstStats[index];
+        scales[index] = spread > 0 ? 1.0 / spread : 1.0;
+    }
+}
@@ -0,0 +1,152 @@
+package neuralnetwork;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Trains a network incrementally from a stream of samples. Producers hand samples over
+ * through a bounded buffer, so no history is kept in memory. Every snapshotInterval samples
+ * a copy of the network is published; it is never classified directly, and each reader thread
+ * scores against its own copy of it, so readers neither lock nor wait for each other.
+ *
+ * Only one consumer may train at a time: run and train throw if the other is in progress.
+ */
+public class OnlineTrainer implements Runnable {
+    private final NeuralNetwork network;
+    private final BlockingQueue<Sample> buffer;
+    private final double alpha;
+    private final int snapshotInterval;
+
+    private final AtomicBoolean isConsuming;
+
+    private final ThreadLocal<ReaderCopy> readerCopies;
+
+    private volatile NeuralNetwork snapshot;
+    private volatile long samplesSeen;
+
+    public OnlineTrainer(NeuralNetwork network, int bufferSize, double alpha, int snapshotInterval) {
+        this(network, new ArrayBlockingQueue<Sample>(bufferSize), alpha, snapshotInterval);
+    }
+
+    public OnlineTrainer(NeuralNetwork network, BlockingQueue<Sample> buffer, double alpha, int snapshotInterval) {
+        if (network == null)
+            throw new NullPointerException("OnlineTrainer: network can't be null");
+
+        if (buffer == null)
+            throw new NullPointerException("OnlineTrainer: buffer can't be null");
+
+        if (snapshotInterval <= 0)
+            throw new IllegalArgumentException("OnlineTrainer: snapshotInterval should be positive");
+
+        this.network = network;
+        this.buffer = buffer;
+        this.alpha = alpha;
+        this.snapshotInterval = snapshotInterval;
+
+        this.isConsuming = new AtomicBoolean(false);
+        this.readerCopies = new ThreadLocal<>();
+        this.samplesSeen = 0;
+
+        publishSnapshot();
+    }
+
+    /**
+     * Blocks while the buffer is full, which gives producers back-pressure.
+     */
+    public void submit(List<Double> input, List<Double> correctAnswer) throws InterruptedException {
+        buffer.put(new Sample(input, correctAnswer));
+    }
+
+    /**
+     * Consumes the buffer until the thread is interrupted.
+     */
+    @Override
+    public void run() {
+        startConsuming();
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                learn(buffer.take());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            publishSnapshot();
+            isConsuming.set(false);
+        }
+    }
+
+    /**
+     * Consumes samples until the source is exhausted.
+     */
+    public void train(Iterator<Sample> source) {
+        if (source == null)
+            throw new NullPointerException("OnlineTrainer: source can't be null");
+
+        startConsuming();
+
+        try {
+            while (source.hasNext()) {
+                learn(source.next());
+            }
+        } finally {
+            publishSnapshot();
+            isConsuming.set(false);
+        }
+    }
+
+    /**
+     * Returns the calling thread's copy of the last published weights. It is copied again
+     * only after a new snapshot has been published, and must not be shared with other threads.
+     */
+    public NeuralNetwork getSnapshot() {
+        NeuralNetwork current = snapshot;
+        ReaderCopy readerCopy = readerCopies.get();
+
+        if (readerCopy == null || readerCopy.source != current) {
+            readerCopy = new ReaderCopy(current, current.copy());
+            readerCopies.set(readerCopy);
+        }
+
+        return readerCopy.network;
+    }
+
+    public int classify(List<Double> inputs) {
+        return getSnapshot().classify(inputs);
+    }
+
+    public long getSamplesSeen() {
+        return this.samplesSeen;
+    }
+
+    private void learn(Sample sample) {
+        network.train(sample.getInput(), sample.getCorrectAnswer(), alpha);
+
+        ++samplesSeen;
+
+        if (samplesSeen % snapshotInterval == 0)
+            publishSnapshot();
+    }
+
+    private void startConsuming() {
+        if (!isConsuming.compareAndSet(false, true))
+            throw new IllegalStateException("OnlineTrainer: samples are already being consumed");
+    }
+
+    private void publishSnapshot() {
+        snapshot = network.copy();
+    }
+
+    private static class ReaderCopy {
+        final NeuralNetwork source;
+        final NeuralNetwork network;
+
+        ReaderCopy(NeuralNetwork source, NeuralNetwork network) {
+            this.source = source;
+            this.network = network;
+        }
+    }
+}
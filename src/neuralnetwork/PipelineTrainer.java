@@ -0,0 +1,400 @@
+package neuralnetwork;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline-parallel mini-batch training. Contiguous groups of layers are pinned to their own
+ * threads and every mini-batch is cut into micro-batches that flow forward and backward through
+ * the stages concurrently. Weights stay fixed while a mini-batch is in flight; gradients are
+ * accumulated per stage and applied once all micro-batches have come back (GPipe scheduling).
+ *
+ * Each stage queue holds at most one forward and one backward message per micro-batch,
+ * so the hand-off queues are bounded and stages never block each other.
+ */
+public class PipelineTrainer {
+    private final NeuralNetwork network;
+    private final int numberOfStages;
+    private final int numberOfMicroBatches;
+
+    private List<Stage> stages;
+    private BlockingQueue<Integer> completed;
+    private volatile RuntimeException failure;
+
+    public PipelineTrainer(NeuralNetwork network, int numberOfStages, int numberOfMicroBatches) {
+        if (network == null)
+            throw new NullPointerException("PipelineTrainer: network can't be null");
+
+        if (network.size() == 0)
+            throw new IllegalArgumentException("PipelineTrainer: network can't have zero layers");
+
+        if (numberOfStages <= 0)
+            throw new IllegalArgumentException("PipelineTrainer: should have 1 or more stages");
+
+        if (numberOfMicroBatches <= 0)
+            throw new IllegalArgumentException("PipelineTrainer: should have 1 or more micro-batches");
+
+        this.network = network;
+        this.numberOfStages = Math.min(numberOfStages, network.size());
+        this.numberOfMicroBatches = numberOfMicroBatches;
+    }
+
+    /**
+     * Unlike NeuralNetwork's epochs, which are single samples, a pass goes over the whole shuffled dataset.
+     */
+    public void train(List<List<Double>> inputs, List<List<Double>> correctAnswers, double alpha,
+                      int numberOfPasses, int batchSize) throws InterruptedException {
+        if (inputs == null)
+            throw new NullPointerException("PipelineTrainer: inputs can't be null");
+
+        if (correctAnswers == null)
+            throw new NullPointerException("PipelineTrainer: correctAnswers can't be null");
+
+        if (inputs.size() != correctAnswers.size())
+            throw new IllegalArgumentException("PipelineTrainer: inputs and correctAnswers should be of the same size");
+
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("PipelineTrainer: batchSize should be positive");
+
+        int inputSize = network.getLayer(0).inputSize();
+        int outputSize = network.getLayer(network.size() - 1).size();
+
+        for (int i = 0; i < inputs.size(); ++i) {
+            if (inputs.get(i).size() != inputSize)
+                throw new IllegalArgumentException("PipelineTrainer: inputs should have the same size with input layer");
+
+            if (correctAnswers.get(i).size() != outputSize)
+                throw new IllegalArgumentException("PipelineTrainer: correctAnswers should have the same size with output layer");
+        }
+
+        createStages();
+
+        ExecutorService executor = Executors.newFixedThreadPool(stages.size());
+
+        try {
+            for (Stage stage : stages) {
+                executor.execute(stage);
+            }
+
+            List<Integer> order = new ArrayList<>(inputs.size());
+
+            for (int i = 0; i < inputs.size(); ++i) {
+                order.add(i);
+            }
+
+            for (int pass = 0; pass < numberOfPasses; ++pass) {
+                Collections.shuffle(order);
+
+                for (int from = 0; from < order.size(); from += batchSize) {
+                    int to = Math.min(order.size(), from + batchSize);
+                    trainBatch(inputs, correctAnswers, order.subList(from, to), alpha);
+                }
+            }
+        } finally {
+            for (Stage stage : stages) {
+                stage.inbox.offer(Message.STOP);
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+            for (Stage stage : stages) {
+                stage.storeWeights();
+            }
+        }
+    }
+
+    private void trainBatch(List<List<Double>> inputs, List<List<Double>> correctAnswers,
+                            List<Integer> batch, double alpha) throws InterruptedException {
+        Normalizer normalizer = network.getNormalizer();
+        int microBatchSize = (batch.size() + numberOfMicroBatches - 1) / numberOfMicroBatches;
+        int sent = 0;
+
+        for (int from = 0; from < batch.size(); from += microBatchSize) {
+            int to = Math.min(batch.size(), from + microBatchSize);
+
+            List<double[]> values = new ArrayList<>(to - from);
+            List<double[]> answers = new ArrayList<>(to - from);
+
+            for (int i = from; i < to; ++i) {
+                List<Double> input = inputs.get(batch.get(i));
+                double[] value = new double[input.size()];
+
+                for (int j = 0; j < value.length; ++j) {
+                    value[j] = normalizer == null ? input.get(j) : normalizer.normalize(j, input.get(j));
+                }
+
+                values.add(value);
+                answers.add(toArray(correctAnswers.get(batch.get(i))));
+            }
+
+            stages.get(0).inbox.put(new Message(sent++, false, values, answers));
+        }
+
+        for (int i = 0; i < sent; ++i) {
+            completed.take();
+
+            if (failure != null)
+                throw new IllegalStateException("PipelineTrainer: stage failed", failure);
+        }
+
+        for (Stage stage : stages) {
+            stage.applyGradients(alpha, batch.size());
+        }
+    }
+
+    private void createStages() {
+        stages = new ArrayList<>(numberOfStages);
+        completed = new ArrayBlockingQueue<>(numberOfMicroBatches);
+        failure = null;
+
+        int layersPerStage = network.size() / numberOfStages;
+        int extraLayers = network.size() % numberOfStages;
+        int firstLayer = 0;
+
+        for (int i = 0; i < numberOfStages; ++i) {
+            int lastLayer = firstLayer + layersPerStage + (i < extraLayers ? 1 : 0);
+            stages.add(new Stage(i, firstLayer, lastLayer));
+            firstLayer = lastLayer;
+        }
+    }
+
+    private static double[] toArray(List<Double> list) {
+        double[] array = new double[list.size()];
+
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = list.get(i);
+        }
+
+        return array;
+    }
+
+    private static class Message {
+        static final Message STOP = new Message(-1, false, null, null);
+
+        final int microBatch;
+        final boolean isBackward;
+        // activations going forward or errors going backward, one array per sample
+        final List<double[]> values;
+        final List<double[]> answers;
+
+        Message(int microBatch, boolean isBackward, List<double[]> values, List<double[]> answers) {
+            this.microBatch = microBatch;
+            this.isBackward = isBackward;
+            this.values = values;
+            this.answers = answers;
+        }
+    }
+
+    private class Stage implements Runnable {
+        final BlockingQueue<Message> inbox;
+
+        private final int index;
+        private final int firstLayer;
+
+        private final double[][][] weights;
+        private final double[][] biases;
+        private final double[][][] weightGradients;
+        private final double[][] biasGradients;
+
+        // per micro-batch, per sample: stage input followed by the output of every local layer
+        private final Map<Integer, List<double[][]>> activations;
+
+        Stage(int index, int firstLayer, int lastLayer) {
+            this.index = index;
+            this.firstLayer = firstLayer;
+            this.inbox = new ArrayBlockingQueue<>(2 * numberOfMicroBatches + 1);
+            this.activations = new HashMap<>();
+
+            int numberOfLayers = lastLayer - firstLayer;
+
+            weights = new double[numberOfLayers][][];
+            biases = new double[numberOfLayers][];
+            weightGradients = new double[numberOfLayers][][];
+            biasGradients = new double[numberOfLayers][];
+
+            for (int k = 0; k < numberOfLayers; ++k) {
+                Layer layer = network.getLayer(firstLayer + k);
+                List<List<Double>> layerWeights = layer.getWeights();
+
+                weights[k] = new double[layer.size()][];
+                weightGradients[k] = new double[layer.size()][layer.inputSize()];
+                biases[k] = toArray(layer.getBiases());
+                biasGradients[k] = new double[layer.size()];
+
+                for (int j = 0; j < layer.size(); ++j) {
+                    weights[k][j] = toArray(layerWeights.get(j));
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Message message = inbox.take();
+
+                    if (message == Message.STOP)
+                        break;
+
+                    if (message.isBackward) {
+                        backward(message.microBatch, message.values);
+                    } else {
+                        forward(message);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failure = new IllegalStateException("PipelineTrainer: stage " + index + " was interrupted", ex);
+                completed.offer(-1);
+            } catch (RuntimeException ex) {
+                failure = ex;
+                completed.offer(-1);
+            }
+        }
+
+        void applyGradients(double alpha, int batchSize) {
+            double rate = alpha / batchSize;
+
+            for (int k = 0; k < weights.length; ++k) {
+                for (int j = 0; j < weights[k].length; ++j) {
+                    for (int i = 0; i < weights[k][j].length; ++i) {
+                        weights[k][j][i] += rate * weightGradients[k][j][i];
+                        weightGradients[k][j][i] = 0;
+                    }
+
+                    biases[k][j] += rate * biasGradients[k][j];
+                    biasGradients[k][j] = 0;
+                }
+            }
+        }
+
+        void storeWeights() {
+            for (int k = 0; k < weights.length; ++k) {
+                List<List<Double>> layerWeights = new ArrayList<>(weights[k].length);
+                List<Double> layerBiases = new ArrayList<>(biases[k].length);
+
+                for (int j = 0; j < weights[k].length; ++j) {
+                    List<Double> neuronWeights = new ArrayList<>(weights[k][j].length);
+
+                    for (double weight : weights[k][j]) {
+                        neuronWeights.add(weight);
+                    }
+
+                    layerWeights.add(neuronWeights);
+                    layerBiases.add(biases[k][j]);
+                }
+
+                network.setLayerWeights(firstLayer + k, layerWeights);
+                network.setBiases(firstLayer + k, layerBiases);
+            }
+        }
+
+        private void forward(Message message) throws InterruptedException {
+            List<double[][]> samples = new ArrayList<>(message.values.size());
+            List<double[]> outputs = new ArrayList<>(message.values.size());
+
+            for (double[] input : message.values) {
+                double[][] sample = new double[weights.length + 1][];
+                sample[0] = input;
+
+                for (int k = 0; k < weights.length; ++k) {
+                    sample[k + 1] = feedForward(k, sample[k]);
+                }
+
+                samples.add(sample);
+                outputs.add(sample[weights.length]);
+            }
+
+            activations.put(message.microBatch, samples);
+
+            if (index < stages.size() - 1) {
+                stages.get(index + 1).inbox.put(new Message(message.microBatch, false, outputs, message.answers));
+                return;
+            }
+
+            List<double[]> errors = new ArrayList<>(outputs.size());
+
+            for (int s = 0; s < outputs.size(); ++s) {
+                double[] output = outputs.get(s);
+                double[] answer = message.answers.get(s);
+                double[] error = new double[output.length];
+
+                for (int j = 0; j < output.length; ++j) {
+                    error[j] = answer[j] - output[j];
+                }
+
+                errors.add(error);
+            }
+
+            backward(message.microBatch, errors);
+        }
+
+        private void backward(int microBatch, List<double[]> errors) throws InterruptedException {
+            List<double[][]> samples = activations.remove(microBatch);
+            List<double[]> previousErrors = new ArrayList<>(errors.size());
+
+            for (int s = 0; s < errors.size(); ++s) {
+                double[][] sample = samples.get(s);
+                double[] error = errors.get(s);
+
+                for (int k = weights.length - 1; k >= 0; --k) {
+                    error = backPropagate(k, sample[k], sample[k + 1], error, k > 0 || index > 0);
+                }
+
+                previousErrors.add(error);
+            }
+
+            if (index > 0) {
+                stages.get(index - 1).inbox.put(new Message(microBatch, true, previousErrors, null));
+            } else {
+                completed.put(microBatch);
+            }
+        }
+
+        private double[] feedForward(int layer, double[] input) {
+            double[] output = new double[weights[layer].length];
+
+            for (int j = 0; j < output.length; ++j) {
+                double sum = biases[layer][j];
+
+                for (int i = 0; i < input.length; ++i) {
+                    sum += weights[layer][j][i] * input[i];
+                }
+
+                output[j] = 1.0 / (1.0 + Math.exp(-sum));
+            }
+
+            return output;
+        }
+
+        // accumulates the gradients of one layer and returns the error of its inputs
+        private double[] backPropagate(int layer, double[] input, double[] output, double[] error,
+                                       boolean needsInputError) {
+            double[] inputError = needsInputError ? new double[input.length] : null;
+
+            for (int j = 0; j < output.length; ++j) {
+                double sigma = error[j] * output[j] * (1.0 - output[j]);
+
+                for (int i = 0; i < input.length; ++i) {
+                    weightGradients[layer][j][i] += sigma * input[i];
+
+                    if (needsInputError)
+                        inputError[i] += weights[layer][j][i] * sigma;
+                }
+
+                biasGradients[layer][j] += sigma;
+            }
+
+            return inputError;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package neuralnetwork;
+
+import java.util.List;
+
+public class Sample {
+    private final List<Double> input;
+    private final List<Double> correctAnswer;
+
+    public Sample(List<Double> input, List<Double> correctAnswer) {
+        if (input == null)
+            throw new NullPointerException("Sample: input can't be null");
+
+        if (correctAnswer == null)
+            throw new NullPointerException("Sample: correctAnswer can't be null");
+
+        this.input = input;
+        this.correctAnswer = correctAnswer;
+    }
+
+    public List<Double> getInput() {
+        return this.input;
+    }
+
+    public List<Double> getCorrectAnswer() {
+        return this.correctAnswer;
+    }
+}
@@ -0,0 +1,70 @@
+package neuralnetwork;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchCandidate {
+    private final List<Integer> neuronsInLayers;
+    private final double alpha;
+    private final NeuralNetwork network;
+
+    private int epochsTrained;
+    private double accuracy;
+    private boolean terminated;
+
+    public SearchCandidate(List<Integer> neuronsInLayers, double alpha) {
+        if (neuronsInLayers == null)
+            throw new NullPointerException("SearchCandidate: neuronsInLayers can't be null");
+
+        this.neuronsInLayers = new ArrayList<>(neuronsInLayers);
+        this.alpha = alpha;
+        this.network = new NeuralNetwork(this.neuronsInLayers);
+
+        this.epochsTrained = 0;
+        this.accuracy = 0;
+        this.terminated = false;
+    }
+
+    public List<Integer> getNeuronsInLayers() {
+        return this.neuronsInLayers;
+    }
+
+    public double getAlpha() {
+        return this.alpha;
+    }
+
+    public NeuralNetwork getNetwork() {
+        return this.network;
+    }
+
+    public int getEpochsTrained() {
+        return this.epochsTrained;
+    }
+
+    public double getAccuracy() {
+        return this.accuracy;
+    }
+
+    public boolean isTerminated() {
+        return this.terminated;
+    }
+
+    void train(List<List<Double>> inputs, List<List<Double>> correctAnswers, int numberOfEpochs) {
+        network.train(inputs, correctAnswers, alpha, numberOfEpochs);
+        epochsTrained += numberOfEpochs;
+    }
+
+    void evaluate(List<List<Double>> inputs, List<List<Double>> correctAnswers) {
+        accuracy = network.getAccuracy(inputs, correctAnswers);
+    }
+
+    void terminate() {
+        this.terminated = true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-20s %8.4f %8d %9.4f %s", neuronsInLayers, alpha, epochsTrained, accuracy,
+                terminated ? "stopped" : "");
+    }
+}
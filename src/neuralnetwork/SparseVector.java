@@ -0,0 +1,92 @@
+package neuralnetwork;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Input vector that stores only its non-zero values, with indices in increasing order.
+ */
+public class SparseVector {
+    private final int size;
+    private final int[] indices;
+    private final double[] values;
+
+    public SparseVector(int size, int[] indices, double[] values) {
+        if (indices == null || values == null)
+            throw new NullPointerException("SparseVector: indices and values can't be null");
+
+        if (size < 0)
+            throw new IllegalArgumentException("SparseVector: size can't be negative");
+
+        if (indices.length != values.length)
+            throw new IllegalArgumentException("SparseVector: indices and values should be of the same size");
+
+        // copied so the caller can't break the checks below afterwards
+        this.size = size;
+        this.indices = indices.clone();
+        this.values = values.clone();
+
+        for (int k = 0; k < this.indices.length; ++k) {
+            if (this.indices[k] < 0 || this.indices[k] >= size)
+                throw new IllegalArgumentException("SparseVector: index is out of range");
+
+            if (k > 0 && this.indices[k] <= this.indices[k - 1])
+                throw new IllegalArgumentException("SparseVector: indices should be strictly increasing");
+        }
+    }
+
+    public static SparseVector fromDense(List<Double> dense) {
+        if (dense == null)
+            throw new NullPointerException("SparseVector: dense can't be null");
+
+        int nonZeros = 0;
+
+        for (Double value : dense) {
+            if (value != 0.0)
+                ++nonZeros;
+        }
+
+        int[] indices = new int[nonZeros];
+        double[] values = new double[nonZeros];
+
+        for (int i = 0, k = 0; i < dense.size(); ++i) {
+            if (dense.get(i) != 0.0) {
+                indices[k] = i;
+                values[k] = dense.get(i);
+                ++k;
+            }
+        }
+
+        return new SparseVector(dense.size(), indices, values);
+    }
+
+    public List<Double> toDense() {
+        List<Double> dense = new ArrayList<>(size);
+
+        for (int i = 0; i < size; ++i) {
+            dense.add(0.0);
+        }
+
+        for (int k = 0; k < indices.length; ++k) {
+            dense.set(indices[k], values[k]);
+        }
+
+        return dense;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int nonZeros() {
+        return this.indices.length;
+    }
+
+    public int getIndex(int k) {
+        return this.indices[k];
+    }
+
+    public double getValue(int k) {
+        return this.values[k];
+    }
+}